@@ -6,11 +6,17 @@
 
 import java.io.File;
 import java.io.FileNotFoundException;
+import java.io.PrintStream;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
 import java.util.Random;
 import java.util.Scanner;
 import java.util.regex.Pattern;
 import java.util.Collections;
 import java.util.LinkedList;
+import java.util.Arrays;
+import java.util.HashSet;
 
 /** Error reporting framework
  *  All error messages go to System.err (aka stderr, the standard error stream).
@@ -20,12 +26,18 @@ import java.util.LinkedList;
 class Error {
     private static int warningCount = 0;
 
+    /** if false, fatal errors throw FatalError instead of ending the program
+     */
+    public static boolean exitOnFatal = true;
+
     /** Report a fatal error
      *  @param msg -- error message to be output
-     *  This never returns, the program terminates reporting failure.
+     *  This never returns, the program terminates reporting failure,
+     *  or if exitOnFatal is false, FatalError is thrown.
      */
     public static void fatal( String msg ) {
         System.err.println( "Epidemic: " + msg );
+        if (!exitOnFatal) throw new FatalError( msg );
         System.exit( 1 );  // abnormal termination
     }
 
@@ -43,9 +55,26 @@ class Error {
     public static void exitIfWarnings( String msg ) {
         if (warningCount > 0) fatal( msg );
     }
+
+    /** Forget all warnings reported so far
+     */
+    public static void reset() {
+        warningCount = 0;
+    }
+}
+
+/** Thrown by Error.fatal when the program must not terminate
+ *  @see Error#exitOnFatal
+ */
+class FatalError extends RuntimeException {
+    private static final long serialVersionUID = 1L;
+
+    public FatalError( String msg ) {
+        super( msg );
+    }
 }
 
-class MyScanner{
+class MyScanner implements AutoCloseable {
     private Scanner sc;
     
     public MyScanner( File f) throws FileNotFoundException {
@@ -56,6 +85,7 @@ class MyScanner{
     public boolean hasNext() { return sc.hasNext(); }
     public boolean hasNext( String s ) { return sc.hasNext( s ); }
     public String next() { return sc.next(); }
+    public void close() { sc.close(); }
 
     // patterns that matter here
 
@@ -281,15 +311,26 @@ class Population{
     // static variable
     public static int uninfected;
     public static int  infected;
-    public static LinkedList<Person> allLatenPerson = new LinkedList<>();
-    public static LinkedList<Person> allAsymptomaticPerson = new LinkedList<>();
-    public static LinkedList<Person> allSymptomaticPerson = new LinkedList<>();
-    public static LinkedList<Person> allBedriddenPerson = new LinkedList<>();
-    public static LinkedList<Person> allRecoveredPerson = new LinkedList<>();
-    public static LinkedList<Person> allDeadPerson = new LinkedList<>();
-    public static LinkedList<Person> allPerson = new LinkedList<>();
+    public static int laten;        // people now Laten
+    public static int asymptomatic; // people now Asymptomatic
+    public static int symptomatic;  // people now Symptomatic
+    public static int bedridden;    // people now Bedridden
+    public static int recovered; // people who reached Recovered
+    public static int dead;      // people who reached Dead
 
     public Population(int pop, int inf){}
+
+    // forget the population of the previous model
+    public static void reset(){
+        uninfected = 0;
+        infected = 0;
+        recovered = 0;
+        dead = 0;
+        laten = 0;
+        asymptomatic = 0;
+        symptomatic = 0;
+        bedridden = 0;
+    }
 }
 
 /** Places that people are associate with and may occupy.
@@ -299,6 +340,7 @@ class Population{
 class Place {
     // instance variables
     public final PlaceKind kind; // what kind of place is this?
+    public final int index;      // position of this place in InfectionKernel
     public int nums = 0;
 
     /** Construct a new place
@@ -307,6 +349,136 @@ class Place {
      */
     public Place( PlaceKind k ) {
 	kind = k;
+	index = InfectionKernel.add( this );
+    }
+}
+
+/** Infection probability of every place, computed once per time step
+ *  The places are flattened into primitive arrays indexed by Place.index.
+ *  The number of infectious people at each place is kept current as people
+ *  change state, so the per-day pass is one tight loop over the arrays
+ *  instead of one computation per person.
+ *  @see Place
+ *  @see Person#setState
+ *  With -Depidemic.vector=true the loop uses the Vector API instead, if
+ *  VectorKernel was compiled and the incubator module is present.
+ *  @see VectorKernel
+ *  @see #chooseKernel
+ */
+class InfectionKernel {
+    /** a way to compute the probabilities of the first n places
+     *  @see #compute(int[],double[],float,double[],int) for the parameters
+     */
+    public interface Kernel {
+	void compute( int[] infectious, double[] trans, float dt,
+		      double[] prob, int n );
+    }
+
+    // the kernel in use, the scalar one below unless chooseKernel picks
+    private static Kernel kernel = InfectionKernel::compute;
+
+    private static int places = 0; // number of places in the arrays
+    private static int[] infectious = new int[16]; // infectious at each place
+    private static double[] trans = new double[16]; // transmissivity of each
+    private static double[] prob = new double[16];  // infection probability
+
+    /** Add a place to the kernel arrays
+     *  @param pl -- the new place
+     *  @return the index of the place in the arrays
+     */
+    public static int add( Place pl ) {
+	if (places == trans.length) {
+	    infectious = Arrays.copyOf( infectious, places * 2 );
+	    trans = Arrays.copyOf( trans, places * 2 );
+	    prob = Arrays.copyOf( prob, places * 2 );
+	}
+	trans[places] = pl.kind.trans;
+	return places++;
+    }
+
+    /** Forget all places of the previous model
+     */
+    public static void reset() {
+	places = 0;
+	Arrays.fill( infectious, 0 );
+    }
+
+    /** Count one more infectious person at a place
+     *  @param pl -- the place
+     */
+    public static void addInfectious( Place pl ) {
+	infectious[pl.index]++;
+    }
+
+    /** Count one less infectious person at a place
+     *  @param pl -- the place
+     */
+    public static void removeInfectious( Place pl ) {
+	infectious[pl.index]--;
+    }
+
+    /** Compute the infection probability of every place for one time step
+     *  @param dt -- the length of the time step, in days
+     */
+    public static void compute( float dt ) {
+	kernel.compute( infectious, trans, dt, prob, places );
+    }
+
+    /** Pick the kernel to use, once when the program starts
+     *  Uses VectorKernel.compute if -Depidemic.vector=true and it can be
+     *  loaded, otherwise the scalar kernel.  A missing vector kernel is a
+     *  problem with how the program was run, not with any model, so it is
+     *  only noted on stderr and not counted as a warning.
+     */
+    public static void chooseKernel() {
+	if (!Boolean.getBoolean( "epidemic.vector" )) return;
+	final MethodHandle vector;
+	try {
+	    vector = MethodHandles.lookup().findStatic(
+		Class.forName( "VectorKernel" ), "compute",
+		MethodType.methodType( void.class,
+		    int[].class, double[].class, float.class, double[].class,
+		    int.class
+		)
+	    );
+	} catch ( ReflectiveOperationException | LinkageError e ) {
+	    System.err.println(
+		"Epidemic: vector kernel not available, using scalar: " + e
+	    );
+	    return;
+	}
+	kernel = (inf, tr, dt, pr, n)-> {
+	    try {
+		vector.invokeExact( inf, tr, dt, pr, n );
+	    } catch ( RuntimeException | java.lang.Error e ) {
+		throw e;
+	    } catch ( Throwable e ) { // compute declares no checked exceptions
+		throw new IllegalStateException( e );
+	    }
+	};
+    }
+
+    /** The scalar kernel, prob[i] = 1 - exp(-infectious[i] * trans[i] * dt)
+     *  @param infectious -- the number of infectious people at each place
+     *  @param trans -- the transmissivity of each place
+     *  @param dt -- the length of the time step, in days
+     *  @param prob -- where the probabilities are stored
+     *  @param n -- the number of places
+     */
+    public static void compute(
+	int[] infectious, double[] trans, float dt, double[] prob, int n
+    ) {
+	for (int i = 0; i < n; i++) {
+	    prob[i] = -Math.expm1( -(infectious[i] * trans[i] * dt) );
+	}
+    }
+
+    /** Get the infection probability of a place in the current time step
+     *  @param pl -- the place
+     *  @return the probability computed by the last call to compute
+     */
+    public static double probability( Place pl ) {
+	return prob[pl.index];
     }
 }
 
@@ -319,8 +491,9 @@ class PlaceKind{
     public Place unfilledPlace = null; // a place of this kind being filled
     public int unfilledCapacity = 0;   // capacity of unfilledPlace
     public int unfilledCapacity2 = 0;
+    public final int index; // position of this kind in allPlaceKinds
 
-    private static LinkedList<PlaceKind> allPlaceKinds = new LinkedList<>();
+    public static LinkedList<PlaceKind> allPlaceKinds = new LinkedList<>();
     private static final MyRandom rand = MyRandom.stream();
 
     public PlaceKind( MyScanner in ) {
@@ -352,6 +525,7 @@ class PlaceKind{
 	trans = Check.nonNeg( trans, 0.0F, ()-> this.describe() + ": negative transmissivity?");
 	sigma = Math.log( (scatter + median) / median );
 
+	index = allPlaceKinds.size();
 	allPlaceKinds.add( this ); // include this in the list of all
     }
 
@@ -386,6 +560,12 @@ class PlaceKind{
 	    }
 	    return null; // category not found
     }
+
+    /** Forget all kinds of places of the previous model
+     */
+    public static void reset() {
+	allPlaceKinds.clear();
+    }
 }
 
 class State{
@@ -435,6 +615,12 @@ class State{
 	    }
 	    return null; // category not found
     }
+
+    /** Forget all states of illness of the previous model
+     */
+    public static void reset() {
+	    allState.clear();
+    }
 }
 
 
@@ -444,6 +630,7 @@ class Role{
     public double fraction;
     public double sum = 0;
     public int number = 0;
+    public final int index; // position of this role in allRoles
     
     public static LinkedList<Role> allRoles = new LinkedList<Role>();
 
@@ -475,6 +662,7 @@ class Role{
         fraction = Check.positive( fraction, 0.0F,()-> name + ": negative population?");
         sum = sum + fraction;
 
+	    index = allRoles.size();
 	    allRoles.add( this ); // include this role in the list of all roles
     }
 
@@ -485,6 +673,11 @@ class Role{
         return null;
     }
 
+    // forget all roles of the previous model
+    public static void reset(){
+        allRoles.clear();
+    }
+
     public static void populateRoles( int population, int infected ) {
 	    int pop = population; // working copy used only in infection decisions
 	    int inf = infected;   // working copy used only in infection decisions
@@ -500,9 +693,9 @@ class Role{
 
 		    // the ratio inf/pop is probability this person is infected
 		    if (rand.nextFloat() < ((float)inf / (float)pop)) {
-		        p.state = "Laten";
+		        p.setState("Laten");
                 p.moveTime = Person.time(1);
-                Population.allLatenPerson.add(p);
+                Population.laten++;
 		        inf = inf - 1;
                 p.role.pk.unfilledPlace.nums++;
 		    }
@@ -512,6 +705,130 @@ class Role{
     }
 }
 
+/** Counts of people in each state of illness, broken down by role and by
+ *  kind of place, maintained incrementally as people change state.
+ *  @see Person#setState
+ */
+class Report {
+    // every state a person can be in, in the order of the daily report
+    public static final String[] states = {
+        "Uninfected", "Laten", "Asymptomatic", "Symptomatic",
+        "Bedridden", "Recovered", "Dead"
+    };
+
+    public static boolean byRoles = false;  // report by role each day?
+    public static boolean byPlaces = false; // report by place kind each day?
+
+    private static int[][] roleCounts = new int[0][];  // [role][state]
+    private static int[][] placeCounts = new int[0][]; // [place kind][state]
+    private static int[] roleCases = new int[0];  // new cases today, by role
+    private static int[] placeCases = new int[0]; // new cases today, by kind
+
+    /** Forget the report settings of the previous model
+     */
+    public static void reset() {
+        byRoles = false;
+        byPlaces = false;
+        prepare();
+    }
+
+    /** Allocate the counts
+     *  This must be called after all roles and places kinds are defined
+     *  and before any person is created.
+     */
+    public static void prepare() {
+        roleCounts = new int[Role.allRoles.size()][states.length];
+        placeCounts = new int[PlaceKind.allPlaceKinds.size()][states.length];
+        roleCases = new int[Role.allRoles.size()];
+        placeCases = new int[PlaceKind.allPlaceKinds.size()];
+    }
+
+    /** Find the position of a state in states
+     *  @param s -- the name of the state
+     *  @return the index, or -1 if s is not a state
+     */
+    private static int stateIndex( String s ) {
+        switch (s) {
+            case "Uninfected":   return 0;
+            case "Laten":        return 1;
+            case "Asymptomatic": return 2;
+            case "Symptomatic":  return 3;
+            case "Bedridden":    return 4;
+            case "Recovered":    return 5;
+            case "Dead":         return 6;
+            default:             return -1;
+        }
+    }
+
+    /** Count a newly created person in their initial state
+     *  @param p -- the person
+     */
+    public static void enter( Person p ) {
+        int s = stateIndex( p.state );
+        roleCounts[p.role.index][s]++;
+        placeCounts[p.pl.kind.index][s]++;
+    }
+
+    /** Move a person from one state to another in the counts
+     *  @param p -- the person
+     *  @param from -- the state they were in
+     *  @param to -- the state they are now in
+     */
+    public static void move( Person p, String from, String to ) {
+        int f = stateIndex( from );
+        int t = stateIndex( to );
+        roleCounts[p.role.index][f]--;
+        roleCounts[p.role.index][t]++;
+        placeCounts[p.pl.kind.index][f]--;
+        placeCounts[p.pl.kind.index][t]++;
+    }
+
+    /** Count a new infection today
+     *  @param p -- the person newly infected
+     */
+    public static void newCase( Person p ) {
+        roleCases[p.role.index]++;
+        placeCases[p.pl.kind.index]++;
+    }
+
+    /** Forget the new cases of the previous day
+     */
+    public static void startDay() {
+        Arrays.fill( roleCases, 0 );
+        Arrays.fill( placeCases, 0 );
+    }
+
+    /** Output the breakdowns that were asked for
+     *  @param days -- the current time
+     *  Each line gives the time, role or place, the name, the new cases
+     *  today, then the number of people in each state in order of states.
+     */
+    public static void print( float days ) {
+        if (byRoles) {
+            for (Role r: Role.allRoles) {
+                printLine( days, "role", r.name,
+                    roleCases[r.index], roleCounts[r.index] );
+            }
+        }
+        if (byPlaces) {
+            for (PlaceKind pk: PlaceKind.allPlaceKinds) {
+                printLine( days, "place", pk.name,
+                    placeCases[pk.index], placeCounts[pk.index] );
+            }
+        }
+    }
+
+    private static void printLine(
+        float days, String what, String name, int cases, int[] counts
+    ) {
+        System.out.print(days + " " + what + " " + name + " " + cases + " ");
+        for (int c: counts) {
+            System.out.print(c + " ");
+        }
+        System.out.println();
+    }
+}
+
 class Person{
     public Role role;
     public String state = "Uninfected";
@@ -519,13 +836,53 @@ class Person{
     public Place pl;
 
     public static Random random = new Random();
-    public static LinkedList<Person> allPerson = new LinkedList<>();
+
+    // people still able to change state, in order of creation; people who
+    // reach Recovered or Dead are dropped by goThroughTimes
+    private static Person[] active = new Person[16];
+    private static int activeCount = 0;
 
     public Person(Role r){
         role = r;
         pl = PlaceKind.findPlace(r.pk);
         pl.nums++;
-        allPerson.add(this);
+        if (activeCount == active.length) {
+            active = Arrays.copyOf(active, activeCount * 2);
+        }
+        active[activeCount++] = this;
+        Report.enter(this);
+    }
+
+    /** Move this person to a new state of illness
+     *  @param s -- the new state
+     *  All state changes go through here so the stratified counts in
+     *  Report stay current without rescanning the population.
+     */
+    public void setState(String s){
+        Report.move(this, state, s);
+        if (!infectious(state) && infectious(s)){
+            InfectionKernel.addInfectious(pl);
+        } else if (infectious(state) && !infectious(s)){
+            InfectionKernel.removeInfectious(pl);
+        }
+        state = s;
+    }
+
+    // can a person in state s infect others at their place?
+    private static boolean infectious(String s){
+        return s.equals("Asymptomatic") || s.equals("Symptomatic")
+            || s.equals("Bedridden");
+    }
+
+    // forget all people of the previous model
+    public static void reset(){
+        active = new Person[16];
+        activeCount = 0;
+    }
+
+    // is this person in a state they can never leave?
+    public boolean terminal(){
+        return state.equals("Recovered") || state.equals("Dead");
     }
 
     public static int time(int i){
@@ -536,55 +893,68 @@ class Person{
     }
 
     public static void goThroughTimes(float days){
-        for (Person p : allPerson){
+        InfectionKernel.compute(1.0f);
+        Report.startDay();
+        // people who become terminal are counted in Population, so the
+        // active set is compacted in place as it is walked
+        int kept = 0;
+        for (int i = 0; i < activeCount; i++){
+            Person p = active[i];
             if (p.moveTime > days){
                 updateState2(p);
             }
             if (p.moveTime == days || p.state.equals("Uninfected")){
                 updateState(p,days);
             }
+            if (!p.terminal()){
+                active[kept++] = p;
+            }
         }
+        Arrays.fill(active, kept, activeCount, null);
+        activeCount = kept;
         System.out.print(days + " ");
         System.out.print(Population.uninfected + " ");
-        System.out.print(Population.allLatenPerson.size() + " ");
-        System.out.print(Population.allAsymptomaticPerson.size() + " ");
-        System.out.print(Population.allSymptomaticPerson.size() + " ");
-        System.out.print(Population.allBedriddenPerson.size() + " ");
-        System.out.print(Population.allRecoveredPerson.size() + " ");
-        System.out.println(Population.allDeadPerson.size() + " ");
+        System.out.print(Population.laten + " ");
+        System.out.print(Population.asymptomatic + " ");
+        System.out.print(Population.symptomatic + " ");
+        System.out.print(Population.bedridden + " ");
+        System.out.print(Population.recovered + " ");
+        System.out.println(Population.dead + " ");
+        Report.print(days);
     }
 
     //Change the state
     public static void updateState(Person p, float days){
         if (p.state.equals("Uninfected") && days != 0.0f){
-            double pro = Prot(p.role.pk, days);
+            double pro = Prot(p.pl);
             int rand1 = random.nextInt(100);
             if (rand1 < (pro * 100)){
-                p.state = "Laten";
-                Population.allLatenPerson.add(p);
+                p.setState("Laten");
+                Report.newCase(p);
+                Population.laten++;
                 Population.uninfected--;
             }
         }
         if (p.state.equals("Laten")){
-            p.state = "Asymptomatic";
+            p.setState("Asymptomatic");
             p.moveTime = p.moveTime + time(1);
-            Population.allAsymptomaticPerson.add(p);
-            Population.allLatenPerson.remove(p);
+            Population.asymptomatic++;
+            Population.laten--;
         } else if (p.state.equals("Asymptomatic")){
-            p.state = "Symptomatic";
+            p.setState("Symptomatic");
             p.moveTime = p.moveTime + time(2);
-            Population.allSymptomaticPerson.add(p);
-            Population.allAsymptomaticPerson.remove(p);
+            Population.symptomatic++;
+            Population.asymptomatic--;
         } else if (p.state.equals("Symptomatic")){
-            p.state = "Bedridden";
+            p.setState("Bedridden");
             p.moveTime = p.moveTime + time(3);
-            Population.allBedriddenPerson.add(p);
-            Population.allSymptomaticPerson.remove(p);
+            Population.bedridden++;
+            Population.symptomatic--;
         } else if (p.state.equals("Bedridden")){
-            p.state = "Dead";
+            p.setState("Dead");
             p.moveTime = 0;
-            Population.allDeadPerson.add(p);
-            Population.allBedriddenPerson.remove(p);
+            Population.dead++;
+            Population.bedridden--;
         }
     }
 
@@ -592,30 +962,25 @@ class Person{
         if (p.state.equals("Bedridden")){
             int rand1 = random.nextInt(100);
             if (rand1 < State.allState.get(2).recover * 100){
-                p.state = "Recovered";
+                p.setState("Recovered");
                 p.moveTime = 0;
-                Population.allRecoveredPerson.add(p);
-                Population.allBedriddenPerson.remove(p);
+                Population.recovered++;
+                Population.bedridden--;
             } else {
                 int rand2 = random.nextInt(99);
                 if (rand2 == 50){
-                    p.state = "Dead";
+                    p.setState("Dead");
                     p.moveTime = 0;
-                    Population.allDeadPerson.add(p);
-                    Population.allBedriddenPerson.remove(p);
+                    Population.dead++;
+                    Population.bedridden--;
                 } 
             }
         }
     }
 
-    public static double Prot(PlaceKind pk, float time){
-        //System.out.println(Math.pow(Math.E,(-(pk.unfilledPlace.nums * pk.trans * time))));
-        /**System.out.println(pk.unfilledCapacity2 - pk.unfilledCapacity);
-        return (1.0 - Math.pow(Math.E,(-((pk.unfilledCapacity2 - pk.unfilledCapacity) * pk.trans * time))));
-        */
-        double meanTime = 1.0/Population.infected * pk.trans;
-        double infectedTime = MyRandom.stream.nextExponential(meanTime);
-        return infectedTime;
+    // probability of infection at the place pl during the current day
+    public static double Prot(Place pl){
+        return InfectionKernel.probability(pl);
     }
 
 }
@@ -696,11 +1061,25 @@ public class Epidemic{
                 new PlaceKind(in);
             } else if (keyword.equals("role")){
                 new Role(in);
+            } else if (keyword.equals("report")){
+                // get what to break the report down by, semicolon
+                final String by = in.getNextName( "???",
+                ()-> "report: missing roles or places");
+                in.getNextLiteral(
+                ()-> "report " + by + ": missing ;");
+                if (by.equals("roles")){
+                    Report.byRoles = true;
+                } else if (by.equals("places")){
+                    Report.byPlaces = true;
+                } else {
+                    Error.warn( "report " + by + ": not roles or places" );
+                }
             }
         }
         Population.infected = infected;
         Population.uninfected = pop - infected;
 
+        Report.prepare();
         Role.populateRoles(pop, infected);
 
         for (float i = 0.0f; i < days; i = i + 1.0F){
@@ -708,16 +1087,147 @@ public class Epidemic{
         }
     }
 
+    /** Forget everything left over from the previous model
+     *  Needed before each model when several are run in one program
+     */
+    private static void reset() {
+        Error.reset();
+        Population.reset();
+        InfectionKernel.reset();
+        PlaceKind.reset();
+        State.reset();
+        Role.reset();
+        Person.reset();
+        Report.reset();
+    }
+
+    /** Run one model from the spool directory
+     *  @param model -- the model file
+     *  @param done -- where the output goes
+     *  @return the status of the job, "ok" or why it failed
+     *  The output goes to name.out and the error messages to name.err
+     *  in done; failures are reported there instead of ending the program.
+     *  This includes running out of memory or stack, after which the
+     *  model is forgotten so the next job has the memory back.
+     */
+    private static String runJob( File model, File done ) {
+        File out = new File( done, model.getName() + ".out" );
+        File err = new File( done, model.getName() + ".err" );
+        PrintStream stdout = System.out;
+        PrintStream stderr = System.err;
+        String status = "ok";
+        try (
+            PrintStream o = new PrintStream( out );
+            PrintStream e = new PrintStream( err );
+            MyScanner in = new MyScanner( model )
+        ) {
+            System.setOut( o );
+            System.setErr( e );
+            reset();
+            buildModel( in );
+        } catch ( FileNotFoundException e ) {
+            status = "could not open file: " + e.getMessage();
+        } catch ( FatalError e ) {
+            status = "failed: " + e.getMessage();
+        } catch ( RuntimeException e ) {
+            e.printStackTrace( System.err );
+            status = "failed: " + e;
+        } catch ( VirtualMachineError e ) {
+            status = "failed: " + e;
+        } finally {
+            System.setOut( stdout );
+            System.setErr( stderr );
+            reset();
+        }
+        return status;
+    }
+
+    /** Run every model that appears in the spool directory, forever
+     *  @param spool -- the directory to watch
+     *  Each model file is run in turn, in order of name.  It is moved to the
+     *  running subdirectory before it runs, then with its output to the
+     *  done subdirectory.  Writers should create each model elsewhere and
+     *  rename it into the spool so it is never seen half written.  Running
+     *  every job in one program keeps it warmed up.
+     *  A model that cannot be moved to running is left in the spool and
+     *  not run.  A model found in running when the daemon starts was left
+     *  there by an earlier daemon that died, so it is moved to done and
+     *  never run again.
+     */
+    private static void serve( File spool ) {
+        File running = new File( spool, "running" );
+        File done = new File( spool, "done" );
+        if (!spool.isDirectory()) Error.fatal( "not a directory: " + spool );
+        for (File dir: new File[] { running, done }) {
+            if (!dir.isDirectory() && !dir.mkdir()) {
+                Error.fatal( "could not make directory: " + dir );
+            }
+        }
+        for (File job: running.listFiles( (f)-> f.isFile() )) {
+            String status = "failed: left in " + running
+                          + " by an earlier daemon";
+            if (!job.renameTo( new File( done, job.getName() ) )) {
+                status = status + "; could not move to " + done;
+            }
+            System.out.println( job.getName() + ": " + status );
+        }
+        Error.exitOnFatal = false;
+        HashSet<String> stuck = new HashSet<>(); // jobs that could not move
+        for (;;) {
+            File[] jobs = spool.listFiles(
+                (f)-> f.isFile() && !f.getName().startsWith( "." )
+            );
+            if (jobs == null) { // the spool vanished, nothing more to do
+                Error.exitOnFatal = true;
+                Error.fatal( "could not list: " + spool );
+            }
+            Arrays.sort( jobs );
+            boolean ran = false;
+            for (File job: jobs) {
+                if (stuck.contains( job.getName() )) continue;
+                ran = true;
+                File claimed = new File( running, job.getName() );
+                if (!job.renameTo( claimed )) {
+                    stuck.add( job.getName() );
+                    System.out.println( job.getName() + ": could not move to "
+                        + running + ", left in spool and will not be run" );
+                    continue;
+                }
+                String status = runJob( claimed, done );
+                if (!claimed.renameTo( new File( done, job.getName() ) )) {
+                    status = status + "; could not move to " + done
+                           + ", left in " + running;
+                }
+                System.out.println( job.getName() + ": " + status );
+            }
+            if (!ran) {
+                try {
+                    Thread.sleep( 1000 ); // nothing to do, wait for more
+                } catch ( InterruptedException e ) {
+                    return;
+                }
+            }
+        }
+    }
+
     /** The main method
      *  @param args -- the command line arguments
      *  Most of this code is entirely about command line argument processing.
      *  It calls buildModel and will eventuall also start the simulation.
+     *  With -spool dir, it runs every model put in dir instead.
      */
     public static void main( String[] args ) {
 	    if (args.length < 1) Error.fatal( "missing file name" );
+	    InfectionKernel.chooseKernel();
+	    if (args[0].equals( "-spool" )) {
+	        if (args.length < 2) Error.fatal( "-spool: missing directory" );
+	        if (args.length > 2) Error.warn( "too many arguments: " + args[2] );
+	        serve( new File( args[1] ) );
+	        return;
+	    }
 	    if (args.length > 1) Error.warn( "too many arguments: " + args[1] );
-	    try {
-	        buildModel( new MyScanner( new File( args[0] ) ) );
+	    try ( MyScanner in = new MyScanner( new File( args[0] ) ) ) {
+	        buildModel( in );
 	        // BUG:  Simulate based on model just built?
 	    } catch ( FileNotFoundException e ) {
 	        Error.fatal( "could not open file: " + args[0] );
@@ -0,0 +1,127 @@
+// VectorKernel.java
+/** Vector API version of the infection probability kernel
+ *  author Chengxin Wu
+ *  This needs the incubator vector module, so it is built and used only
+ *  on request:
+ *    javac --add-modules jdk.incubator.vector Epidemic.java VectorKernel.java
+ *    java --add-modules jdk.incubator.vector -Depidemic.vector=true \
+ *         Epidemic model
+ *  Without the module, Epidemic.java builds alone and uses the scalar kernel.
+ *  Running this class times it against the scalar kernel:
+ *    java --add-modules jdk.incubator.vector VectorKernel [places [reps]]
+ *  Results may differ from the scalar kernel in the last bit, since the
+ *  vector expm1 is not Math.expm1.
+ *  Nothing here refers to Epidemic.java; InfectionKernel finds compute by
+ *  name, so VectorKernel uses no classes private to that file.
+ */
+
+import java.util.Random;
+import jdk.incubator.vector.DoubleVector;
+import jdk.incubator.vector.IntVector;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorShape;
+import jdk.incubator.vector.VectorSpecies;
+
+public class VectorKernel {
+    /** the signature of both kernels, for the timing harness
+     */
+    private interface Kernel {
+	void compute( int[] infectious, double[] trans, float dt,
+		      double[] prob, int n );
+    }
+
+    // the widest doubles the hardware supports, and ints with as many lanes
+    private static final VectorSpecies<Double> DS
+	= DoubleVector.SPECIES_PREFERRED;
+    private static final VectorSpecies<Integer> IS = VectorSpecies.of(
+	int.class, VectorShape.forBitSize( DS.vectorBitSize() / 2 )
+    );
+
+    /** prob[i] = 1 - exp(-infectious[i] * trans[i] * dt), a vector at a time
+     *  @param infectious -- the number of infectious people at each place
+     *  @param trans -- the transmissivity of each place
+     *  @param dt -- the length of the time step, in days
+     *  @param prob -- where the probabilities are stored
+     *  @param n -- the number of places
+     */
+    public static void compute(
+	int[] infectious, double[] trans, float dt, double[] prob, int n
+    ) {
+	final DoubleVector minusDt = DoubleVector.broadcast( DS, -dt );
+	final int upper = DS.loopBound( n );
+	int i = 0;
+	for (; i < upper; i = i + DS.length()) {
+	    DoubleVector inf = (DoubleVector)IntVector
+		.fromArray( IS, infectious, i ).castShape( DS, 0 );
+	    inf.mul( DoubleVector.fromArray( DS, trans, i ) ).mul( minusDt )
+		.lanewise( VectorOperators.EXPM1 ).neg().intoArray( prob, i );
+	}
+	scalar( infectious, trans, dt, prob, i, n ); // left after last vector
+    }
+
+    /** The same computation one place at a time, as InfectionKernel does it
+     *  @param from -- the first place to compute
+     *  @param n -- the number of places
+     *  the other parameters are as for compute
+     */
+    private static void scalar(
+	int[] infectious, double[] trans, float dt, double[] prob,
+	int from, int n
+    ) {
+	for (int i = from; i < n; i++) {
+	    prob[i] = -Math.expm1( -(infectious[i] * trans[i] * dt) );
+	}
+    }
+
+    /** Time one kernel
+     *  @return the best time for one pass over all places, in nanoseconds
+     */
+    private static long time( Kernel k, int reps,
+	int[] infectious, double[] trans, double[] prob
+    ) {
+	long best = Long.MAX_VALUE;
+	for (int r = 0; r < reps; r++) {
+	    long start = System.nanoTime();
+	    k.compute( infectious, trans, 1.0F, prob, prob.length );
+	    best = Math.min( best, System.nanoTime() - start );
+	}
+	return best;
+    }
+
+    /** Compare the scalar and vector kernels on random places
+     *  @param args -- optionally the number of places and of repetitions
+     */
+    public static void main( String[] args ) {
+	int places = (args.length > 0) ? Integer.parseInt( args[0] ) : 1000000;
+	int reps = (args.length > 1) ? Integer.parseInt( args[1] ) : 200;
+	Random rand = new Random();
+	int[] infectious = new int[places];
+	double[] trans = new double[places];
+	for (int i = 0; i < places; i++) {
+	    infectious[i] = rand.nextInt( 5 );
+	    trans[i] = rand.nextDouble() * 0.05;
+	}
+	double[] scalarProb = new double[places];
+	double[] vectorProb = new double[places];
+	Kernel scalar = (inf, tr, dt, pr, n)-> scalar( inf, tr, dt, pr, 0, n );
+	Kernel vector = VectorKernel::compute;
+
+	// the first round warms up both, the second is the one reported
+	long s = 0;
+	long v = 0;
+	for (int round = 0; round < 2; round++) {
+	    s = time( scalar, reps, infectious, trans, scalarProb );
+	    v = time( vector, reps, infectious, trans, vectorProb );
+	}
+
+	double maxDiff = 0.0;
+	for (int i = 0; i < places; i++) {
+	    maxDiff = Math.max( maxDiff,
+		Math.abs( scalarProb[i] - vectorProb[i] ) );
+	}
+	System.out.println( "places " + places + ", " + DS );
+	System.out.println( "scalar " + (double)s / places + " ns/place" );
+	System.out.println( "vector " + (double)v / places + " ns/place" );
+	System.out.println( "max difference " + maxDiff );
+    }
+}